@@ -0,0 +1,146 @@
+package com.diff;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped access to JSON files
+ *
+ * <p>Files are mapped with {@link FileChannel#map}, in chunks of at most
+ * {@link #CHUNK_SIZE} bytes since a single mapping cannot exceed 2 GB, and
+ * read through streams over the mapped buffers: the parser reads the page
+ * cache directly, without read calls nor an intermediate copy into a file
+ * stream buffer.</p>
+ *
+ * <p>{@link #sameContent(Path, Path)} compares two files byte for byte on
+ * their mappings, which lets callers skip parsing identical files
+ * altogether; {@link #crc32c(Path)} gives a checksum to store alongside
+ * snapshots, so that a file can be checked against an earlier one without
+ * keeping it.</p>
+ */
+public final class MappedJsonFile {
+    static final int CHUNK_SIZE = 1 << 30;
+
+    private MappedJsonFile() {
+    }
+
+    /**
+     * Map a file, read-only
+     *
+     * <p>Mappings stay valid once the channel is closed, and are released
+     * when the buffers are garbage collected.</p>
+     *
+     * @param path the file
+     * @return the mapped chunks of the file, in order; no chunk for an empty file
+     * @throws IOException failed to open or map the file
+     */
+    public static List<MappedByteBuffer> map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<MappedByteBuffer> chunks = new ArrayList<>();
+            for (long position = 0; position < size; position += CHUNK_SIZE) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(CHUNK_SIZE, size - position)));
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * Open a stream over the mapping of a file
+     *
+     * @param path the file
+     * @return the stream
+     * @throws IOException failed to open or map the file
+     */
+    public static InputStream open(Path path) throws IOException {
+        List<InputStream> streams = new ArrayList<>();
+        for (MappedByteBuffer chunk : map(path)) {
+            streams.add(new ByteBufferBackedInputStream(chunk));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * Create a parser over the mapping of a file
+     *
+     * @param mapper the mapper creating the parser
+     * @param path the file
+     * @return the parser, which closes the stream when closed
+     * @throws IOException failed to open or map the file
+     */
+    public static JsonParser createParser(ObjectMapper mapper, Path path) throws IOException {
+        return mapper.createParser(open(path));
+    }
+
+    /**
+     * Read a file as a JSON tree, parsing it from its mapping
+     *
+     * @param mapper the mapper reading the tree
+     * @param path the file
+     * @return the tree
+     * @throws IOException failed to read or parse the file
+     */
+    public static JsonNode readTree(ObjectMapper mapper, Path path) throws IOException {
+        try (InputStream in = open(path)) {
+            return mapper.readTree(in);
+        }
+    }
+
+    /**
+     * Tell whether two files have the same content, byte for byte
+     *
+     * <p>Files of different sizes are told apart without being read.</p>
+     *
+     * @param first the first file
+     * @param second the second file
+     * @return true if both files have the same bytes
+     * @throws IOException failed to open or map a file
+     */
+    public static boolean sameContent(Path first, Path second) throws IOException {
+        try (FileChannel a = FileChannel.open(first, StandardOpenOption.READ);
+             FileChannel b = FileChannel.open(second, StandardOpenOption.READ)) {
+            long size = a.size();
+            if (size != b.size()) {
+                return false;
+            }
+            for (long position = 0; position < size; position += CHUNK_SIZE) {
+                long length = Math.min(CHUNK_SIZE, size - position);
+                if (a.map(FileChannel.MapMode.READ_ONLY, position, length)
+                        .mismatch(b.map(FileChannel.MapMode.READ_ONLY, position, length)) != -1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Compute the CRC-32C of a file, from its mapping
+     *
+     * @param path the file
+     * @return the checksum
+     * @throws IOException failed to open or map the file
+     */
+    public static long crc32c(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (MappedByteBuffer chunk : map(path)) {
+            crc.update(chunk);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,355 @@
+package com.diff;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming JSON diff of two documents, with bounded memory
+ *
+ * <p>Both documents are read token by token, in lockstep, from two {@link
+ * JsonParser}s, and the RFC 6902 operations turning the source into the
+ * target are written to a {@link JsonGenerator} as soon as they are known.
+ * Added and replacing values are copied straight from the target parser,
+ * and removed values are skipped.</p>
+ *
+ * <p>Values are only read into memory when the members of two objects are
+ * out of step. When the current members of both objects have different
+ * names, and neither was seen on the other side yet, one of them is read and
+ * kept aside, from the side with fewer members kept aside; a member kept
+ * aside is diffed in memory once its counterpart shows up, and is removed or
+ * added at the end of its object if it never does. The streams are back in
+ * step at the next member with the same name on both sides. A member present
+ * on one side only thus costs the memory of its value, and at most of the
+ * value of one member of the other side, and a run of such members costs up
+ * to as many members of the other side. Members in a different order on both
+ * sides are kept aside until their counterparts show up, which is the whole
+ * object if the orders have nothing in common. With the same member order on
+ * both sides, which is the case for snapshots produced by the same program,
+ * nothing is kept aside, and memory only depends on the nesting depth of the
+ * documents.</p>
+ *
+ * <p>The patch only contains {@code add}, {@code remove} and {@code replace}
+ * operations, which can be applied in order: array elements are compared
+ * index by index, extra source elements are removed from the end of the
+ * common part and extra target elements are appended. Numbers are compared
+ * by value, so {@code 1} and {@code 1.0} are equal. No move or copy is
+ * detected, since this would require keeping every removed or unchanged
+ * value.</p>
+ */
+public final class StreamingJsonDiff {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonParser source;
+    private final JsonParser target;
+    private final JsonGenerator out;
+    /* Pointer to the current value, as a string */
+    private final StringBuilder path = new StringBuilder();
+
+    private StreamingJsonDiff(JsonParser source, JsonParser target, JsonGenerator out) {
+        this.source = source;
+        this.target = target;
+        this.out = out;
+    }
+
+    /**
+     * Diff the documents of two files, writing the patch to a stream
+     *
+     * <p>Both files are parsed from their memory mappings. Files with the same
+     * bytes are not parsed at all, and give an empty patch.</p>
+     *
+     * <p>The output stream is flushed but not closed.</p>
+     *
+     * @param source the file of the document to be patched
+     * @param target the file of the expected result
+     * @param out the stream the patch is written to
+     * @throws IOException failed to read a file, or to write the patch
+     */
+    public static void diff(Path source, Path target, OutputStream out) throws IOException {
+        try (JsonGenerator generator = MAPPER.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (MappedJsonFile.sameContent(source, target)) {
+                generator.writeStartArray();
+                generator.writeEndArray();
+                return;
+            }
+            try (JsonParser sourceParser = MappedJsonFile.createParser(MAPPER, source);
+                 JsonParser targetParser = MappedJsonFile.createParser(MAPPER, target)) {
+                diff(sourceParser, targetParser, generator);
+            }
+        }
+    }
+
+    /**
+     * Diff the documents read from two parsers, writing the patch as a JSON
+     * array to a generator
+     *
+     * <p>The parsers may be positioned before or on the first token of their
+     * document.</p>
+     *
+     * @param source the parser of the document to be patched
+     * @param target the parser of the expected result
+     * @param out the generator the patch is written to
+     * @throws IOException failed to read a document, or to write the patch
+     */
+    public static void diff(JsonParser source, JsonParser target, JsonGenerator out) throws IOException {
+        if (!source.hasCurrentToken() && source.nextToken() == null
+                || !target.hasCurrentToken() && target.nextToken() == null) {
+            throw new IOException("no JSON value to diff");
+        }
+        out.writeStartArray();
+        new StreamingJsonDiff(source, target, out).diffValues();
+        out.writeEndArray();
+        out.flush();
+    }
+
+    /*
+     * Both parsers are on the first token of a value; on return, both are on
+     * the last token of that value.
+     */
+    private void diffValues() throws IOException {
+        JsonToken first = source.currentToken();
+        JsonToken second = target.currentToken();
+        if (first == JsonToken.START_OBJECT && second == JsonToken.START_OBJECT) {
+            diffObjects();
+        } else if (first == JsonToken.START_ARRAY && second == JsonToken.START_ARRAY) {
+            diffArrays();
+        } else if (first.isScalarValue() && second.isScalarValue() && sameScalar()) {
+            return;
+        } else {
+            source.skipChildren();
+            writeOperation("replace", path);
+            out.writeFieldName("value");
+            out.copyCurrentStructure(target);
+            out.writeEndObject();
+        }
+    }
+
+    private boolean sameScalar() throws IOException {
+        JsonToken first = source.currentToken();
+        JsonToken second = target.currentToken();
+        if (first.isNumeric() && second.isNumeric()) {
+            return source.getDecimalValue().compareTo(target.getDecimalValue()) == 0;
+        }
+        if (first != second) {
+            return false;
+        }
+        return first != JsonToken.VALUE_STRING || source.getText().equals(target.getText());
+    }
+
+    /*
+     * Members with the same name on both sides are diffed as they are read.
+     * Otherwise, a member whose counterpart was already put aside is diffed
+     * with it, and only its side moves on; once one object has no more
+     * members, the rest of the other is removed or added as it is read.
+     * Failing that, the current member of the side with fewer members put
+     * aside is put aside too, so that both sides take turns until they are
+     * back in step.
+     */
+    private void diffObjects() throws IOException {
+        Map<String, JsonNode> pendingSource = new LinkedHashMap<>();
+        Map<String, JsonNode> pendingTarget = new LinkedHashMap<>();
+        String first = nextFieldName(source);
+        String second = nextFieldName(target);
+        while (first != null || second != null) {
+            if (first != null && first.equals(second)) {
+                int length = push(first);
+                source.nextToken();
+                target.nextToken();
+                diffValues();
+                path.setLength(length);
+                first = nextFieldName(source);
+                second = nextFieldName(target);
+            } else if (second != null && (first == null || pendingSource.containsKey(second))) {
+                int length = push(second);
+                target.nextToken();
+                JsonNode other = pendingSource.remove(second);
+                if (other == null) {
+                    writeOperation("add", path);
+                    out.writeFieldName("value");
+                    out.copyCurrentStructure(target);
+                    out.writeEndObject();
+                } else {
+                    diffTrees(other, MAPPER.readTree(target));
+                }
+                path.setLength(length);
+                second = nextFieldName(target);
+            } else if (first != null && (second == null || pendingTarget.containsKey(first))) {
+                int length = push(first);
+                source.nextToken();
+                JsonNode other = pendingTarget.remove(first);
+                if (other == null) {
+                    source.skipChildren();
+                    writeRemove();
+                } else {
+                    diffTrees(MAPPER.readTree(source), other);
+                }
+                path.setLength(length);
+                first = nextFieldName(source);
+            } else if (pendingSource.size() < pendingTarget.size()) {
+                source.nextToken();
+                pendingSource.put(first, MAPPER.readTree(source));
+                first = nextFieldName(source);
+            } else {
+                target.nextToken();
+                pendingTarget.put(second, MAPPER.readTree(target));
+                second = nextFieldName(target);
+            }
+        }
+        for (String name : pendingSource.keySet()) {
+            int length = push(name);
+            writeRemove();
+            path.setLength(length);
+        }
+        for (Map.Entry<String, JsonNode> entry : pendingTarget.entrySet()) {
+            int length = push(entry.getKey());
+            writeValueOperation("add", path, entry.getValue());
+            path.setLength(length);
+        }
+    }
+
+    /*
+     * Name of the next member, or null at the end of the object.
+     */
+    private static String nextFieldName(JsonParser parser) throws IOException {
+        return parser.nextToken() == JsonToken.FIELD_NAME ? parser.getCurrentName() : null;
+    }
+
+    private void diffArrays() throws IOException {
+        int index = 0;
+        JsonToken first = source.nextToken();
+        JsonToken second = target.nextToken();
+        while (first != JsonToken.END_ARRAY && second != JsonToken.END_ARRAY) {
+            int length = push(index++);
+            diffValues();
+            path.setLength(length);
+            first = source.nextToken();
+            second = target.nextToken();
+        }
+        // Extra source elements: each removal shifts the next one to the same index
+        int length = push(index);
+        while (first != JsonToken.END_ARRAY) {
+            source.skipChildren();
+            writeRemove();
+            first = source.nextToken();
+        }
+        path.setLength(length);
+        length = push("-");
+        while (second != JsonToken.END_ARRAY) {
+            writeOperation("add", path);
+            out.writeFieldName("value");
+            out.copyCurrentStructure(target);
+            out.writeEndObject();
+            second = target.nextToken();
+        }
+        path.setLength(length);
+    }
+
+    /*
+     * Same diff as the streaming one, on values which had to be materialized.
+     */
+    private void diffTrees(JsonNode first, JsonNode second) throws IOException {
+        if (first.isObject() && second.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = first.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> entry = fields.next();
+                int length = push(entry.getKey());
+                JsonNode other = second.get(entry.getKey());
+                if (other == null) {
+                    writeRemove();
+                } else {
+                    diffTrees(entry.getValue(), other);
+                }
+                path.setLength(length);
+            }
+            fields = second.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> entry = fields.next();
+                if (!first.has(entry.getKey())) {
+                    int length = push(entry.getKey());
+                    writeValueOperation("add", path, entry.getValue());
+                    path.setLength(length);
+                }
+            }
+        } else if (first.isArray() && second.isArray()) {
+            int size = Math.min(first.size(), second.size());
+            for (int i = 0; i < size; i++) {
+                int length = push(i);
+                diffTrees(first.get(i), second.get(i));
+                path.setLength(length);
+            }
+            int length = push(size);
+            for (int i = size; i < first.size(); i++) {
+                writeRemove();
+            }
+            path.setLength(length);
+            length = push("-");
+            for (int i = size; i < second.size(); i++) {
+                writeValueOperation("add", path, second.get(i));
+            }
+            path.setLength(length);
+        } else if (!sameValue(first, second)) {
+            writeValueOperation("replace", path, second);
+        }
+    }
+
+    private static boolean sameValue(JsonNode first, JsonNode second) {
+        if (first.isNumber() && second.isNumber()) {
+            return first.decimalValue().compareTo(second.decimalValue()) == 0;
+        }
+        return first.equals(second);
+    }
+
+    /*
+     * Appends a reference token to the current path, and returns the length
+     * of the path before it.
+     */
+    private int push(String name) {
+        int length = path.length();
+        path.append('/');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '~') {
+                path.append("~0");
+            } else if (c == '/') {
+                path.append("~1");
+            } else {
+                path.append(c);
+            }
+        }
+        return length;
+    }
+
+    private int push(int index) {
+        int length = path.length();
+        path.append('/').append(index);
+        return length;
+    }
+
+    private void writeOperation(String op, CharSequence pointer) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("op", op);
+        out.writeStringField("path", pointer.toString());
+    }
+
+    private void writeRemove() throws IOException {
+        writeOperation("remove", path);
+        out.writeEndObject();
+    }
+
+    private void writeValueOperation(String op, CharSequence pointer, JsonNode value) throws IOException {
+        writeOperation(op, pointer);
+        out.writeFieldName("value");
+        MAPPER.writeTree(out, value);
+        out.writeEndObject();
+    }
+}
@@ -0,0 +1,187 @@
+package com.merge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonpatch.JsonPatchException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds a sequence of RFC 7396 merge patches into one
+ *
+ * <p>Patches are added in the order they are to be applied, at once or as
+ * they arrive. The composer keeps, for every member the patches touch,
+ * whether it is merged, removed (set to null by the last patch touching it),
+ * or set to a value; a patch merged into a member that an earlier patch set
+ * is merged into that value. Applying the composed patch then gives the same
+ * result as applying all the patches in turn, in a single walk of the
+ * document.</p>
+ *
+ * <p>Not every sequence of merge patches can be written as a single merge
+ * patch: once a patch sets a member to something other than an object, or
+ * removes it, a later patch merging an object into it gives that exact
+ * object, whatever the document had there, while a merge patch can only add
+ * members to an object. {@link #toPatch()} fails in that case, but {@link
+ * #apply(JsonNode)} still applies the sequence in one go.</p>
+ */
+public final class JsonMergePatchComposer {
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    private final Node root = Node.merged();
+
+    /**
+     * Fold a sequence of merge patches into a single one
+     *
+     * @param patches the patches, in the order they are to be applied
+     * @return the merge patch equivalent to applying them all in turn
+     * @throws JsonPatchException the patches cannot be written as a single
+     * merge patch
+     */
+    public static JsonNode compose(List<JsonNode> patches) throws JsonPatchException {
+        JsonMergePatchComposer composer = new JsonMergePatchComposer();
+        for (JsonNode patch : patches) {
+            composer.add(patch);
+        }
+        return composer.toPatch();
+    }
+
+    /**
+     * Fold one more patch, to be applied after those already added
+     *
+     * @param patch the merge patch; it is copied, and can be modified
+     * afterwards
+     * @return this composer
+     */
+    public JsonMergePatchComposer add(JsonNode patch) {
+        fold(root, patch);
+        return this;
+    }
+
+    /**
+     * Write the patches added so far as a single merge patch
+     *
+     * @return a new merge patch; an empty object if no patch was added
+     * @throws JsonPatchException the patches cannot be written as a single
+     * merge patch
+     */
+    public JsonNode toPatch() throws JsonPatchException {
+        return toPatch(root);
+    }
+
+    /**
+     * Apply the patches added so far to a document
+     *
+     * @param target the document, which is left intact
+     * @return the patched document
+     */
+    public JsonNode apply(JsonNode target) {
+        return apply(root, target.deepCopy());
+    }
+
+    private static void fold(Node node, JsonNode patch) {
+        if (!patch.isObject()) {
+            node.set(patch.deepCopy());
+        } else if (node.value != null) {
+            node.value = merge(node.value, patch);
+        } else if (node.members == null) {
+            // merged into a removed value: nothing is left to merge with
+            node.set(merge(MissingNode.getInstance(), patch));
+        } else {
+            Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isNull()) {
+                    node.members.put(field.getKey(), Node.removed());
+                } else {
+                    fold(node.members.computeIfAbsent(field.getKey(), name -> Node.merged()), field.getValue());
+                }
+            }
+        }
+    }
+
+    /*
+     * Merges a patch into a value the composer owns, modifying it if it is an
+     * object.
+     */
+    private static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch.deepCopy();
+        }
+        ObjectNode ret = target.isObject() ? (ObjectNode) target : FACTORY.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                ret.remove(field.getKey());
+            } else {
+                ret.set(field.getKey(), merge(ret.path(field.getKey()), field.getValue()));
+            }
+        }
+        return ret;
+    }
+
+    private static JsonNode toPatch(Node node) throws JsonPatchException {
+        if (node.value != null) {
+            if (node.value.isObject()) {
+                throw new JsonPatchException("an object merged into a replaced or removed value "
+                        + "cannot be written as a merge patch");
+            }
+            return node.value.deepCopy();
+        }
+        ObjectNode ret = FACTORY.objectNode();
+        for (Map.Entry<String, Node> member : node.members.entrySet()) {
+            Node child = member.getValue();
+            ret.set(member.getKey(), child.value == null && child.members == null
+                    ? NullNode.getInstance() : toPatch(child));
+        }
+        return ret;
+    }
+
+    /*
+     * The target is a copy, which is modified.
+     */
+    private static JsonNode apply(Node node, JsonNode target) {
+        if (node.value != null) {
+            return node.value.deepCopy();
+        }
+        ObjectNode ret = target.isObject() ? (ObjectNode) target : FACTORY.objectNode();
+        for (Map.Entry<String, Node> member : node.members.entrySet()) {
+            Node child = member.getValue();
+            if (child.value == null && child.members == null) {
+                ret.remove(member.getKey());
+            } else {
+                ret.set(member.getKey(), apply(child, ret.path(member.getKey())));
+            }
+        }
+        return ret;
+    }
+
+    /*
+     * A value which is set, merged, or removed if it is neither.
+     */
+    private static final class Node {
+        private JsonNode value;
+        private Map<String, Node> members;
+
+        static Node merged() {
+            Node ret = new Node();
+            ret.members = new LinkedHashMap<>();
+            return ret;
+        }
+
+        static Node removed() {
+            return new Node();
+        }
+
+        void set(JsonNode value) {
+            this.value = value;
+            this.members = null;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.merge;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatchException;
 import com.github.fge.jsonpatch.mergepatch.JsonMergePatch;
 
+import java.io.IOException;
+
 public class JsonMergePatchWithString {
     public static void main(String[] args) {
         ObjectMapper mapper = new ObjectMapper();
@@ -46,8 +48,12 @@ public class JsonMergePatchWithString {
             final JsonMergePatch mergePatch = JsonMergePatch.fromJson(op);
             final JsonNode patched = mergePatch.apply(node);
             System.out.println(patched);
+            // Same merge, with the target read token by token instead of as a tree
+            StreamingJsonMergePatch.apply(op, mapper.createParser(merge),
+                    mapper.createGenerator(System.out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+            System.out.println();
 
-        } catch (JsonProcessingException | JsonPatchException e) {
+        } catch (IOException | JsonPatchException e) {
             e.printStackTrace();
         }finally {
             System.out.println("Process Successful");
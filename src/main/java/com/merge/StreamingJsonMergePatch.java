@@ -0,0 +1,145 @@
+package com.merge;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming RFC 7396 merge patch, with memory bounded by the size of the
+ * patch
+ *
+ * <p>The target document is read token by token from a {@link JsonParser},
+ * and the merged document written to a {@link JsonGenerator} as it goes:
+ * members which the patch does not mention are copied through, members it
+ * sets to null are skipped, members it sets to an object are merged the same
+ * way, and members it sets to anything else are replaced. Members of the
+ * patch which the target object does not have are written at its end. Only
+ * the patch is held in memory, as a tree, along with the names of the patch
+ * members seen in each object being merged.</p>
+ *
+ * <p>The result is the same as with {@code JsonMergePatch.fromJson(patch)
+ * .apply(target)}.</p>
+ */
+public final class StreamingJsonMergePatch {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonParser target;
+    private final JsonGenerator out;
+
+    private StreamingJsonMergePatch(JsonParser target, JsonGenerator out) {
+        this.target = target;
+        this.out = out;
+    }
+
+    /**
+     * Merge a patch into the document of a file, writing the result to
+     * another file
+     *
+     * @param patch the merge patch
+     * @param target the file of the document to patch
+     * @param result the file the merged document is written to
+     * @throws IOException failed to read the document, or to write the result
+     */
+    public static void apply(JsonNode patch, Path target, Path result) throws IOException {
+        try (JsonParser parser = MAPPER.createParser(target.toFile());
+             JsonGenerator generator = MAPPER.createGenerator(result.toFile(), JsonEncoding.UTF8)) {
+            apply(patch, parser, generator);
+        }
+    }
+
+    /**
+     * Merge a patch into the document read from a parser, writing the result
+     * to a generator
+     *
+     * <p>The parser may be positioned before or on the first token of the
+     * document.</p>
+     *
+     * @param patch the merge patch
+     * @param target the parser of the document to patch
+     * @param out the generator the merged document is written to
+     * @throws IOException failed to read the document, or to write the result
+     */
+    public static void apply(JsonNode patch, JsonParser target, JsonGenerator out) throws IOException {
+        if (!target.hasCurrentToken() && target.nextToken() == null) {
+            throw new IOException("no JSON value to patch");
+        }
+        new StreamingJsonMergePatch(target, out).merge(patch);
+        out.flush();
+    }
+
+    /*
+     * The parser is on the first token of a value; on return, it is on the
+     * last token of that value.
+     */
+    private void merge(JsonNode patch) throws IOException {
+        if (!patch.isObject()) {
+            target.skipChildren();
+            MAPPER.writeTree(out, patch);
+            return;
+        }
+        if (target.currentToken() != JsonToken.START_OBJECT) {
+            target.skipChildren();
+            writeMerged(patch);
+            return;
+        }
+        out.writeStartObject();
+        Set<String> seen = new HashSet<>();
+        while (target.nextToken() == JsonToken.FIELD_NAME) {
+            String name = target.getCurrentName();
+            target.nextToken();
+            JsonNode value = patch.get(name);
+            if (value == null) {
+                out.writeFieldName(name);
+                out.copyCurrentStructure(target);
+                continue;
+            }
+            seen.add(name);
+            if (value.isNull()) {
+                target.skipChildren();
+            } else {
+                out.writeFieldName(name);
+                merge(value);
+            }
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().isNull() && !seen.contains(field.getKey())) {
+                out.writeFieldName(field.getKey());
+                writeMerged(field.getValue());
+            }
+        }
+        out.writeEndObject();
+    }
+
+    /*
+     * Writes a patch merged into a missing value: members set to null are
+     * dropped from objects.
+     */
+    private void writeMerged(JsonNode patch) throws IOException {
+        if (!patch.isObject()) {
+            MAPPER.writeTree(out, patch);
+            return;
+        }
+        out.writeStartObject();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().isNull()) {
+                out.writeFieldName(field.getKey());
+                writeMerged(field.getValue());
+            }
+        }
+        out.writeEndObject();
+    }
+}
@@ -1,5 +1,6 @@
 package com.patch;
 
+import com.diff.MappedJsonFile;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
@@ -13,9 +14,9 @@ public class JsonPatchFileObjectNArray {
         try {
             final ObjectMapper mapper = new ObjectMapper();
 
-            JsonNode node = mapper.readTree(Paths.get("/Users/ishasethia/Desktop/Json/java.json").toFile());
+            JsonNode node = MappedJsonFile.readTree(mapper, Paths.get("/Users/ishasethia/Desktop/Json/java.json"));
             System.out.println("com.patch.User-Data :- " + node + "\n");
-            JsonNode op = mapper.readTree(Paths.get("/Users/ishasethia/Desktop/Json/op.json").toFile());
+            JsonNode op = MappedJsonFile.readTree(mapper, Paths.get("/Users/ishasethia/Desktop/Json/op.json"));
             final JsonPatch patch = JsonPatch.fromJson(op);
             System.out.println("Operations :- " + patch + "\n");
             final JsonNode patched = patch.apply(node);